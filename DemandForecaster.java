@@ -0,0 +1,273 @@
+package com.grppj.donateblood.service;
+
+import com.grppj.donateblood.model.Urgency;
+import com.grppj.donateblood.repository.RecipientRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-(hospital, blood type) demand and shortage forecast.
+ *
+ * Demand is fed by request events (add, transfer, cancel) as they happen and
+ * kept as an exponentially decayed, urgency-weighted sum, so each pair costs a
+ * few fields no matter how many requests it has seen. Withdrawals subtract what
+ * the request still contributes (its weight decayed since request_date), not
+ * its original weight. Stock is read once per pair and then kept current from
+ * fulfillments and from the availability already computed by the recipients list.
+ *
+ * Cold start: the in-memory state does not survive a restart, so while the
+ * bean is initialised (before the web server takes requests, so nothing is
+ * counted twice) the last {@code forecast.warmup-windows} windows of requests
+ * are replayed in one streamed query. Each request is replayed at its exact
+ * request_date, the same timestamp a later withdrawal subtracts at. That is
+ * the only read of blood_request; everything after it is incremental.
+ *
+ * Pairs are created only by those events; queries never add one.
+ *
+ * All events come from RecipientAdminController.
+ */
+@Component
+public class DemandForecaster {
+
+    private static final double MS_PER_DAY = 24d * 60 * 60 * 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Time constant of the decay; demand older than this counts ~37%. */
+    @Value("${forecast.window-days:7}")
+    private double windowDays;
+
+    /** Pairs projected to run out within this many days are reported as alerts. */
+    @Value("${forecast.alert-days:3}")
+    private double alertDays;
+
+    /** History replayed at startup, in windows (older requests weigh < 5% at 3). */
+    @Value("${forecast.warmup-windows:3}")
+    private int warmupWindows;
+
+    private final Map<Long, Pair> pairs = new ConcurrentHashMap<>();
+
+    /* ------------ EVENTS ------------- */
+
+    /** A new request was created now (admin add or the target side of a transfer). */
+    public void onRequested(int hospitalId, int bloodTypeId, int units, Urgency urgency) {
+        long now = now();
+        pair(hospitalId, bloodTypeId).addDemand(units * weight(urgency), now, now);
+    }
+
+    /**
+     * A pending request made at {@code requestDate} left this hospital without
+     * being fulfilled (cancel or transfer source).
+     */
+    public void onWithdrawn(int hospitalId, int bloodTypeId, int units, Urgency urgency, LocalDateTime requestDate) {
+        long now = now();
+        long madeAt = (requestDate != null) ? toMillis(requestDate) : now;
+        pair(hospitalId, bloodTypeId).addDemand(-units * weight(urgency), madeAt, now);
+    }
+
+    /** Units of stock were consumed by a fulfillment. */
+    public void onFulfilled(int hospitalId, int bloodTypeId, int unitsUsed) {
+        pair(hospitalId, bloodTypeId).addStock(-unitsUsed);
+    }
+
+    /** Current available units, when a caller has already computed them (no DB access). */
+    public void observeStock(int hospitalId, int bloodTypeId, String hospitalName, String bloodType, int availableUnits) {
+        Pair p = pairs.computeIfAbsent(key(hospitalId, bloodTypeId), k -> new Pair(hospitalId, bloodTypeId));
+        if (hospitalName != null) p.hospitalName = hospitalName;
+        if (bloodType != null) p.bloodType = bloodType;
+        p.setStock(availableUnits);
+    }
+
+    /* ------------ QUERIES ------------- */
+
+    /** Forecast for a pair already seen by an event, or null. */
+    public ShortageForecast forecast(int hospitalId, int bloodTypeId) {
+        Pair p = pairs.get(key(hospitalId, bloodTypeId));
+        return (p != null) ? p.forecast(now()) : null;
+    }
+
+    /** Every known pair, optionally for one hospital, soonest shortage first. */
+    public List<ShortageForecast> forecasts(Integer hospitalId) {
+        long now = now();
+        return pairs.values().stream()
+                .filter(p -> hospitalId == null || p.hospitalId == hospitalId)
+                .map(p -> p.forecast(now))
+                .sorted(Comparator.comparingDouble(ShortageForecast::getDaysToShortage))
+                .toList();
+    }
+
+    /** Pairs projected to run short within the alert threshold, soonest first. */
+    public List<ShortageForecast> alerts(Integer hospitalId) {
+        return forecasts(hospitalId).stream()
+                .filter(f -> f.getDaysToShortage() <= alertDays)
+                .toList();
+    }
+
+    /* ------------ COLD START ------------- */
+
+    @PostConstruct
+    void warmUp() {
+        long now = now();
+        LocalDateTime since = LocalDateTime.now().minusHours(Math.round(windowDays * warmupWindows * 24));
+        // requests still counted as demand: pending or fulfilled (transferred and cancelled were withdrawn)
+        jdbcTemplate.query("""
+            SELECT hospital_id,
+                   blood_type_id,
+                   urgency,
+                   request_date,
+                   SUM(quantity) AS units
+              FROM blood_request
+             WHERE request_date >= ?
+               AND status IN ('pending', 'completed')
+             GROUP BY hospital_id, blood_type_id, urgency, request_date
+            """,
+            rs -> {
+                Timestamp madeAt = rs.getTimestamp("request_date");
+                pair(rs.getInt("hospital_id"), rs.getInt("blood_type_id"))
+                    .addDemand(rs.getInt("units") * weight(RecipientRepository.parseUrgency(rs.getString("urgency"))),
+                               (madeAt != null) ? madeAt.getTime() : now, now);
+            },
+            since);
+    }
+
+    /* ------------ INTERNALS ------------- */
+
+    private static long key(int hospitalId, int bloodTypeId) {
+        return ((long) hospitalId << 32) | (bloodTypeId & 0xffffffffL);
+    }
+
+    /** Existing pair, or a new one seeded from the DB; the query runs outside the map. Events only. */
+    private Pair pair(int hospitalId, int bloodTypeId) {
+        long key = key(hospitalId, bloodTypeId);
+        Pair p = pairs.get(key);
+        if (p != null) return p;
+        Pair loaded = load(hospitalId, bloodTypeId);
+        p = pairs.putIfAbsent(key, loaded);
+        return (p != null) ? p : loaded;
+    }
+
+    /** One-time seed of a pair: names plus current available units. */
+    private Pair load(int hospitalId, int bloodTypeId) {
+        Pair p = new Pair(hospitalId, bloodTypeId);
+        jdbcTemplate.query("""
+            SELECT h.hospital_name,
+                   bt.blood_type,
+                   (SELECT COALESCE(SUM(d.blood_unit), 0)
+                      FROM donation d
+                      JOIN donor_appointment da ON da.id = d.donor_appointment_id
+                     WHERE da.hospital_id   = h.id
+                       AND da.blood_type_id = bt.id
+                       AND d.status = 'Available') AS available
+              FROM hospital h, blood_type bt
+             WHERE h.id = ? AND bt.id = ?
+            """,
+            rs -> {
+                p.hospitalName = rs.getString(1);
+                p.bloodType = rs.getString(2);
+                p.stock = rs.getInt(3);
+            },
+            hospitalId, bloodTypeId);
+        return p;
+    }
+
+    private static double weight(Urgency urgency) {
+        if (urgency == null) return 1.0;
+        return switch (urgency) {
+            case HIGH   -> 1.5;
+            case MEDIUM -> 1.0;
+            case LOW    -> 0.5;
+        };
+    }
+
+    private static long toMillis(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long now() { return System.currentTimeMillis(); }
+
+    private class Pair {
+        final int hospitalId;
+        final int bloodTypeId;
+        volatile String hospitalName;
+        volatile String bloodType;
+
+        // weighted units decayed to lastUpdate; not clamped, so a bad withdrawal shows up as negative demand
+        private double decayedDemand;
+        private long lastUpdate = now();
+        private int stock;
+
+        Pair(int hospitalId, int bloodTypeId) {
+            this.hospitalId = hospitalId;
+            this.bloodTypeId = bloodTypeId;
+        }
+
+        /** Adds an event of {@code weightedUnits} that happened at {@code eventTime}, as it counts at {@code now}. */
+        synchronized void addDemand(double weightedUnits, long eventTime, long now) {
+            double age = Math.max(0, now - eventTime) / MS_PER_DAY;
+            decayedDemand = decayTo(now) + weightedUnits * Math.exp(-age / windowDays);
+            lastUpdate = Math.max(lastUpdate, now);
+        }
+
+        synchronized void addStock(int delta) { stock = Math.max(0, stock + delta); }
+
+        synchronized void setStock(int units) { stock = Math.max(0, units); }
+
+        synchronized ShortageForecast forecast(long now) {
+            double perDay = decayTo(now) / windowDays;
+            double days = (perDay <= 0) ? Double.POSITIVE_INFINITY : stock / perDay;
+
+            ShortageForecast f = new ShortageForecast();
+            f.setHospitalId(hospitalId);
+            f.setBloodTypeId(bloodTypeId);
+            f.setHospitalName(hospitalName);
+            f.setBloodType(bloodType);
+            f.setAvailableUnits(stock);
+            f.setDemandPerDay(perDay);
+            f.setDaysToShortage(days);
+            return f;
+        }
+
+        private double decayTo(long now) {
+            double elapsedDays = Math.max(0, now - lastUpdate) / MS_PER_DAY;
+            return decayedDemand * Math.exp(-elapsedDays / windowDays);
+        }
+    }
+
+    /* ------------ DTO ------------- */
+    public static class ShortageForecast {
+        private Integer hospitalId;
+        private Integer bloodTypeId;
+        private String  hospitalName;
+        private String  bloodType;
+        private int     availableUnits;
+        private double  demandPerDay;     // urgency-weighted units per day
+        private double  daysToShortage;   // +Infinity when there is no recent demand
+
+        public Integer getHospitalId() { return hospitalId; }
+        public void setHospitalId(Integer v) { hospitalId = v; }
+        public Integer getBloodTypeId() { return bloodTypeId; }
+        public void setBloodTypeId(Integer v) { bloodTypeId = v; }
+        public String getHospitalName() { return hospitalName; }
+        public void setHospitalName(String v) { hospitalName = v; }
+        public String getBloodType() { return bloodType; }
+        public void setBloodType(String v) { bloodType = v; }
+        public int getAvailableUnits() { return availableUnits; }
+        public void setAvailableUnits(int v) { availableUnits = v; }
+        public double getDemandPerDay() { return demandPerDay; }
+        public void setDemandPerDay(double v) { demandPerDay = v; }
+        public double getDaysToShortage() { return daysToShortage; }
+        public void setDaysToShortage(double v) { daysToShortage = v; }
+    }
+}
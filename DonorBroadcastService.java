@@ -0,0 +1,277 @@
+package com.grppj.donateblood.service;
+
+import com.grppj.donateblood.repository.UserMessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shortage broadcast: messages every donor whose blood type can be given to a
+ * request's blood type (ABO/Rh) and who is past the donation cooldown.
+ *
+ * The fan-out runs on a single background thread, never on a request thread.
+ * The eligible donor ids are selected once per run (ordered by user id) and then
+ * delivered in pages of {@code broadcast.batch-size}: each page is one
+ * {@link UserMessageRepository#sendMessages} batch plus the progress update, in
+ * one transaction, followed by a {@code broadcast.pause-ms} pause.
+ *
+ * Progress (status and the last donor messaged) lives in broadcast_progress
+ * (see broadcast_progress.sql), so it survives restarts: broadcasts left queued
+ * or running by a previous process are re-submitted once the application is
+ * ready, a stopped or failed one resumes after the last committed page when an
+ * admin starts it again, and a finished one is never sent again. Only the ids
+ * of queued/running broadcasts are kept in memory, capped at
+ * {@code broadcast.max-queued}.
+ */
+@Component
+public class DonorBroadcastService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserMessageRepository userMessageRepository;
+
+    @Value("${broadcast.batch-size:500}")
+    private int batchSize;
+
+    @Value("${broadcast.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${broadcast.cooldown-days:56}")
+    private int cooldownDays;
+
+    @Value("${broadcast.max-queued:50}")
+    private int maxQueued;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "donor-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Request ids queued or running in this process. */
+    private final Set<Integer> active = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts (or resumes) the broadcast for a request and returns immediately.
+     * A broadcast that is already queued, running or finished is left as is.
+     * Returns null when too many broadcasts are already queued.
+     */
+    public BroadcastJob start(int requestId) {
+        BroadcastJob job = progress(requestId);
+        if (job != null && job.getStatus() == Status.DONE) return job;
+        if (active.contains(requestId)) return job;
+        if (active.size() >= maxQueued) return null;
+        if (!active.add(requestId)) return job;   // another thread just queued it
+
+        int upd = jdbcTemplate.update(
+            "UPDATE broadcast_progress SET status = 'QUEUED', error = NULL, updated_at = NOW() WHERE request_id = ?",
+            requestId);
+        if (upd == 0) {
+            jdbcTemplate.update(
+                "INSERT INTO broadcast_progress(request_id, status, updated_at) VALUES (?, 'QUEUED', NOW())",
+                requestId);
+        }
+        worker.submit(() -> run(requestId));
+        return progress(requestId);
+    }
+
+    public BroadcastJob progress(int requestId) {
+        return jdbcTemplate.query("""
+            SELECT request_id, status, last_user_id, sent, batches, error, updated_at
+              FROM broadcast_progress
+             WHERE request_id = ?
+            """,
+            rs -> {
+                if (!rs.next()) return null;
+                BroadcastJob j = new BroadcastJob();
+                j.setRequestId(rs.getInt(1));
+                j.setStatus(Status.valueOf(rs.getString(2)));
+                j.setLastUserId(rs.getInt(3));
+                j.setSent(rs.getInt(4));
+                j.setBatches(rs.getInt(5));
+                j.setError(rs.getString(6));
+                var ts = rs.getTimestamp(7);
+                j.setUpdatedAt(ts != null ? ts.toLocalDateTime() : null);
+                return j;
+            },
+            requestId);
+    }
+
+    /** Re-submits broadcasts a previous process left queued or running; over the cap they are marked STOPPED. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<Integer> unfinished = jdbcTemplate.queryForList(
+            "SELECT request_id FROM broadcast_progress WHERE status IN ('QUEUED', 'RUNNING') ORDER BY updated_at",
+            Integer.class);
+        for (int requestId : unfinished) {
+            if (start(requestId) == null) {
+                setStatus(requestId, Status.STOPPED, "Not resumed after restart: too many broadcasts queued.");
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void run(int requestId) {
+        try {
+            setStatus(requestId, Status.RUNNING, null);
+            int cursor = progress(requestId).getLastUserId();
+
+            Map<String, Object> ctx = jdbcTemplate.queryForMap("""
+                SELECT br.hospital_id,
+                       bt.blood_type,
+                       h.hospital_name
+                  FROM blood_request br
+                  JOIN blood_type bt ON bt.id = br.blood_type_id
+                  JOIN hospital h    ON h.id  = br.hospital_id
+                 WHERE br.id = ?
+                """, requestId);
+
+            int senderHospitalId = ((Number) ctx.get("hospital_id")).intValue();
+            String bloodType = (String) ctx.get("blood_type");
+            String message = "Urgent Blood Needed : " + bloodType + " donors are needed at "
+                    + ctx.get("hospital_name") + ". Please visit or book an appointment if you are able to donate.";
+
+            List<Integer> donorIds = eligibleDonors(compatibleDonorTypeIds(bloodType), cursor);
+
+            for (int from = 0; from < donorIds.size(); from += batchSize) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                List<Integer> page = donorIds.subList(from, Math.min(from + batchSize, donorIds.size()));
+                int last = page.get(page.size() - 1);
+
+                // messages and cursor commit together, so a resume never re-sends a page
+                transactionTemplate.executeWithoutResult(tx -> {
+                    userMessageRepository.sendMessages(senderHospitalId, page, message);
+                    jdbcTemplate.update("""
+                        UPDATE broadcast_progress
+                           SET last_user_id = ?, sent = sent + ?, batches = batches + 1, updated_at = NOW()
+                         WHERE request_id = ?
+                        """, last, page.size(), requestId);
+                });
+
+                if (from + batchSize < donorIds.size()) Thread.sleep(pauseMs);
+            }
+            setStatus(requestId, Status.DONE, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            setStatus(requestId, Status.STOPPED, null);
+        } catch (Exception e) {
+            setStatus(requestId, Status.FAILED, e.getMessage());
+        } finally {
+            active.remove(requestId);
+        }
+    }
+
+    /**
+     * Donors after {@code afterUserId} with a compatible type and no donation inside
+     * the cooldown, ordered by user id. Selected once per run, not once per page.
+     */
+    private List<Integer> eligibleDonors(List<Integer> donorTypeIds, int afterUserId) {
+        List<Integer> ids = new ArrayList<>();
+        if (donorTypeIds.isEmpty()) return ids;
+
+        String in = String.join(",", Collections.nCopies(donorTypeIds.size(), "?"));
+        List<Object> args = new ArrayList<>(donorTypeIds);
+        args.add(afterUserId);
+        args.add(LocalDate.now().minusDays(cooldownDays));
+
+        jdbcTemplate.query("""
+            SELECT da.user_id
+              FROM donor_appointment da
+              LEFT JOIN donation d ON d.donor_appointment_id = da.id
+             WHERE da.blood_type_id IN (%s)
+               AND da.user_id > ?
+             GROUP BY da.user_id
+            HAVING MAX(d.donation_date) IS NULL OR MAX(d.donation_date) < ?
+             ORDER BY da.user_id
+            """.formatted(in),
+            rs -> { ids.add(rs.getInt(1)); },
+            args.toArray());
+        return ids;
+    }
+
+    private void setStatus(int requestId, Status status, String error) {
+        jdbcTemplate.update(
+            "UPDATE broadcast_progress SET status = ?, error = ?, updated_at = NOW() WHERE request_id = ?",
+            status.name(), error, requestId);
+    }
+
+    /** blood_type ids whose red cells can be given to the recipient type. */
+    private List<Integer> compatibleDonorTypeIds(String recipientType) {
+        List<Integer> ids = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, blood_type FROM blood_type", rs -> {
+            if (canDonate(rs.getString(2), recipientType)) ids.add(rs.getInt(1));
+        });
+        return ids;
+    }
+
+    /** ABO: donor antigens must be a subset of the recipient's. Rh: Rh+ only to Rh+. */
+    static boolean canDonate(String donor, String recipient) {
+        if (donor == null || recipient == null) return false;
+        String d = donor.trim().toUpperCase();
+        String r = recipient.trim().toUpperCase();
+        if (d.length() < 2 || r.length() < 2) return false;
+
+        boolean donorPos = d.endsWith("+");
+        boolean recipPos = r.endsWith("+");
+        if (donorPos && !recipPos) return false;
+
+        String dAbo = d.substring(0, d.length() - 1);
+        String rAbo = r.substring(0, r.length() - 1);
+        if (dAbo.contains("A") && !rAbo.contains("A")) return false;
+        if (dAbo.contains("B") && !rAbo.contains("B")) return false;
+        return true;
+    }
+
+    public enum Status { QUEUED, RUNNING, DONE, STOPPED, FAILED }
+
+    /* ------------ DTO ------------- */
+    public static class BroadcastJob {
+        private int requestId;
+        private Status status;
+        private int lastUserId;      // keyset cursor: last donor messaged
+        private int sent;
+        private int batches;
+        private String error;
+        private LocalDateTime updatedAt;
+
+        public int getRequestId() { return requestId; }
+        public void setRequestId(int v) { requestId = v; }
+        public Status getStatus() { return status; }
+        public void setStatus(Status v) { status = v; }
+        public int getLastUserId() { return lastUserId; }
+        public void setLastUserId(int v) { lastUserId = v; }
+        public int getSent() { return sent; }
+        public void setSent(int v) { sent = v; }
+        public int getBatches() { return batches; }
+        public void setBatches(int v) { batches = v; }
+        public String getError() { return error; }
+        public void setError(String v) { error = v; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(LocalDateTime v) { updatedAt = v; }
+    }
+}
@@ -0,0 +1,49 @@
+package com.grppj.donateblood.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DonorBroadcastServiceTest {
+
+    private static final List<String> TYPES = List.of("O-", "O+", "A-", "A+", "B-", "B+", "AB-", "AB+");
+
+    /** Red-cell compatibility: recipient -> donor types that may give to it. */
+    private static final Map<String, List<String>> CAN_RECEIVE_FROM = Map.of(
+        "O-",  List.of("O-"),
+        "O+",  List.of("O-", "O+"),
+        "A-",  List.of("O-", "A-"),
+        "A+",  List.of("O-", "O+", "A-", "A+"),
+        "B-",  List.of("O-", "B-"),
+        "B+",  List.of("O-", "O+", "B-", "B+"),
+        "AB-", List.of("O-", "A-", "B-", "AB-"),
+        "AB+", TYPES
+    );
+
+    @Test
+    void canDonateMatchesCompatibilityTableForAllPairs() {
+        for (String recipient : TYPES) {
+            for (String donor : TYPES) {
+                boolean expected = CAN_RECEIVE_FROM.get(recipient).contains(donor);
+                assertEquals(expected, DonorBroadcastService.canDonate(donor, recipient),
+                        donor + " -> " + recipient);
+            }
+        }
+    }
+
+    @Test
+    void canDonateIgnoresCaseAndWhitespace() {
+        assertEquals(true, DonorBroadcastService.canDonate(" o- ", "ab+"));
+        assertEquals(false, DonorBroadcastService.canDonate("ab+", " o- "));
+    }
+
+    @Test
+    void canDonateRejectsMissingOrMalformedTypes() {
+        assertEquals(false, DonorBroadcastService.canDonate(null, "A+"));
+        assertEquals(false, DonorBroadcastService.canDonate("A+", null));
+        assertEquals(false, DonorBroadcastService.canDonate("A", "A+"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.grppj.donateblood.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of recent admin POST actions by idempotency key so that
+ * double-clicks and browser retries are answered from the first result instead
+ * of running the DB sequence again.
+ *
+ * The store is in-memory, bounded to {@code idempotency.max-entries} and entries
+ * expire after {@code idempotency.ttl-seconds}. A duplicate that arrives while
+ * the first submission is still running waits for it rather than racing it;
+ * if it is still running after {@code idempotency.wait-seconds} the duplicate
+ * is redirected back to the recipients list with an {@code errorMessage}.
+ * Only successful outcomes are cached: if the action throws or leaves an
+ * {@code errorMessage} flash attribute, the entry is dropped and the next
+ * submission runs again. In-flight entries are never expired or evicted.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** Where a duplicate goes when the original is still running after the wait. */
+    private static final String RETRY_VIEW = "redirect:/admin/recipients";
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong waitedInFlight = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    // insertion order == expiry order, so the eldest entry is always the next to expire
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Runs {@code action} once per (key, scope). Flash attributes it adds to
+     * {@code ra} are cached with its view name and replayed for duplicates.
+     * A blank key disables deduplication for that call.
+     */
+    public String handle(String key, String scope, RedirectAttributes ra, Supplier<String> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String id = scope + "|" + key.trim();
+
+        while (true) {
+            Entry entry;
+            boolean owner = false;
+            synchronized (entries) {
+                purgeExpired(System.currentTimeMillis());
+                entry = entries.get(id);
+                if (entry == null) {
+                    entry = new Entry(System.currentTimeMillis() + ttlSeconds * 1000);
+                    entries.put(id, entry);
+                    owner = true;
+                    evictOverflow();
+                }
+            }
+
+            if (owner) {
+                executed.incrementAndGet();
+                boolean cached = false;
+                try {
+                    String view = action.get();
+                    Map<String, ?> flash = (ra != null) ? new LinkedHashMap<>(ra.getFlashAttributes()) : null;
+                    if (flash == null || !flash.containsKey("errorMessage")) {
+                        entry.flash = flash;
+                        entry.view = view;
+                        cached = true;
+                    }
+                    return view;
+                } finally {
+                    // failures (exceptions, errors, error flashes) are not cached; a retry may run again
+                    if (!cached) {
+                        synchronized (entries) { entries.remove(id, entry); }
+                    }
+                    entry.done.countDown();
+                }
+            }
+
+            try {
+                if (entry.done.getCount() > 0) {
+                    waitedInFlight.incrementAndGet();
+                    if (!entry.done.await(waitSeconds, TimeUnit.SECONDS)) {
+                        return stillProcessing(ra);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return stillProcessing(ra);
+            }
+
+            if (entry.view != null) {
+                deduplicated.incrementAndGet();
+                if (ra != null && entry.flash != null) {
+                    entry.flash.forEach(ra::addFlashAttribute);
+                }
+                return entry.view;
+            }
+            // the original submission failed and was dropped; go round as a fresh attempt
+        }
+    }
+
+    public Map<String, Long> stats() {
+        int size;
+        synchronized (entries) { size = entries.size(); }
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("executed", executed.get());
+        m.put("deduplicated", deduplicated.get());
+        m.put("waitedInFlight", waitedInFlight.get());
+        m.put("evicted", evicted.get());
+        m.put("expired", expired.get());
+        m.put("size", (long) size);
+        return m;
+    }
+
+    /** The original submission has not finished yet; send the admin back to the list instead of failing. */
+    private static String stillProcessing(RedirectAttributes ra) {
+        if (ra != null) {
+            ra.addFlashAttribute("errorMessage", "This action is still being processed. Please refresh.");
+        }
+        return RETRY_VIEW;
+    }
+
+    /** Drops the oldest finished entries over the bound. Caller holds the lock on {@code entries}. */
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            Entry e = it.next();
+            if (e.done.getCount() > 0) continue; // never drop an in-flight entry
+            it.remove();
+            evicted.incrementAndGet();
+        }
+    }
+
+    /** Caller holds the lock on {@code entries}. */
+    private void purgeExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.expiresAt > now) break;
+            if (e.done.getCount() > 0) continue; // never drop an in-flight entry
+            it.remove();
+            expired.incrementAndGet();
+        }
+    }
+
+    private static class Entry {
+        final long expiresAt;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String view;
+        volatile Map<String, ?> flash;
+
+        Entry(long expiresAt) { this.expiresAt = expiresAt; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.grppj.donateblood.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Wraps the application DataSource (only under the "loadtest" profile) so the
+ * load-test harness can count how many statements each admin action issues.
+ * Counting is per thread, which matches one scripted admin session per thread.
+ */
+@Component
+@Profile("loadtest")
+public class QueryCountingDataSource implements BeanPostProcessor {
+
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+    /** Reset the statement count of the calling thread. */
+    public static void reset() { COUNTER.get()[0] = 0; }
+
+    /** Statements prepared by the calling thread since the last reset. */
+    public static long count() { return COUNTER.get()[0]; }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && !(bean instanceof Counting)) {
+            return new Counting(ds);
+        }
+        return bean;
+    }
+
+    static class Counting extends DelegatingDataSource {
+        Counting(DataSource target) { super(target); }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private Connection wrap(Connection target) {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("prepareStatement") || name.equals("createStatement") || name.equals("prepareCall")) {
+                        COUNTER.get()[0]++;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+}
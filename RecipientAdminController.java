@@ -18,8 +18,14 @@ import com.grppj.donateblood.repository.BloodTypeRepository;
 import com.grppj.donateblood.repository.HospitalRepository;
 import com.grppj.donateblood.repository.RecipientRepository;
 import com.grppj.donateblood.repository.UserMessageRepository; // ⬅️ NEW import
+import com.grppj.donateblood.service.DemandForecaster;
+import com.grppj.donateblood.service.DonorBroadcastService;
+import com.grppj.donateblood.service.IdempotencyStore;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/admin")
@@ -31,6 +37,15 @@ public class RecipientAdminController {
     @Autowired
     private UserMessageRepository userMessageRepository; // ⬅️ NEW
 
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private DonorBroadcastService donorBroadcastService;
+
     private final RecipientRepository recipientRepository;
     private final HospitalRepository hospitalRepository;
     private final BloodTypeRepository bloodTypeRepository;
@@ -70,6 +85,9 @@ public class RecipientAdminController {
                         .filter(id -> id != row.getHospitalId())
                         .toList()
             );
+
+            demandForecaster.observeStock(row.getHospitalId(), row.getBloodTypeId(),
+                    row.getHospitalName(), row.getBloodType(), row.getAvailableUnits());
         });
 
         String hospitalTitle = (hospitalId == null)
@@ -81,6 +99,9 @@ public class RecipientAdminController {
                     .orElse("Hospital " + hospitalId);
 
         model.addAttribute("rows", rows);
+        model.addAttribute("shortageAlerts", demandForecaster.alerts(hospitalId));
+        // one key per page render; duplicate POSTs from this page share it
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         model.addAttribute("hospitalTitle", hospitalTitle);
         model.addAttribute("hospitals", allHospitals);
         model.addAttribute("title", "Recipients");
@@ -202,6 +223,7 @@ public class RecipientAdminController {
                 adminUserId,
                 /* requiredDate */ reqDate
         );
+        demandForecaster.onRequested(form.getHospitalId(), form.getBloodTypeId(), form.getQuantity(), form.getUrgency());
 
         ra.addFlashAttribute("successMessage", "Blood request created.");
         return "redirect:/admin/recipients";
@@ -212,38 +234,64 @@ public class RecipientAdminController {
     public String completeRequest(@PathVariable("id") int requestId,
                                   @RequestParam("bloodTypeId") int bloodTypeId,
                                   @RequestParam("quantity") int quantity,
+                                  @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                                  RedirectAttributes ra,
                                   HttpSession session) {
-        Integer hospitalId = (Integer) session.getAttribute("HOSPITAL_ID");
-        if (hospitalId == null) {
-            hospitalId = recipientRepository.findHospitalIdForRequest(requestId);
-        }
-        if (hospitalId != null && quantity > 0) {
-            int adminUserId = (session.getAttribute("USER_ID") instanceof Integer)
-                    ? (Integer) session.getAttribute("USER_ID") : 0;
-            recipientRepository.updateStatusAndInsertFulfillment(requestId, hospitalId, adminUserId, quantity);
-        }
-        return "redirect:/admin/recipients";
+        String scope = "complete:" + requestId + ":" + bloodTypeId + ":" + quantity;
+        return idempotencyStore.handle(idempotencyKey, scope, ra, () -> {
+            Integer hospitalId = (Integer) session.getAttribute("HOSPITAL_ID");
+            if (hospitalId == null) {
+                hospitalId = recipientRepository.findHospitalIdForRequest(requestId);
+            }
+            if (hospitalId != null && quantity > 0) {
+                int adminUserId = (session.getAttribute("USER_ID") instanceof Integer)
+                        ? (Integer) session.getAttribute("USER_ID") : 0;
+                int consumed = recipientRepository.updateStatusAndInsertFulfillment(requestId, hospitalId, adminUserId, quantity);
+                if (consumed > 0) demandForecaster.onFulfilled(hospitalId, bloodTypeId, consumed);
+            }
+            return "redirect:/admin/recipients";
+        });
     }
 
     @PostMapping("/recipients/{id}/transfer")
     public String transferRequest(@PathVariable("id") int requestId,
                                   @RequestParam("targetHospitalId") int targetHospitalId,
+                                  @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
                                   RedirectAttributes ra) {
-        try {
-            recipientRepository.transferAllUnitsNoTx(requestId, targetHospitalId);
-            ra.addFlashAttribute("successMessage", "Request transferred to target hospital.");
-        } catch (Exception e) {
-            ra.addFlashAttribute("errorMessage", e.getMessage());
-        }
-        return "redirect:/admin/recipients";
+        String scope = "transfer:" + requestId + ":" + targetHospitalId;
+        return idempotencyStore.handle(idempotencyKey, scope, ra, () -> {
+            try {
+                var src = recipientRepository.transferAllUnitsNoTx(requestId, targetHospitalId);
+
+                // demand moves with the request
+                Urgency urgency = RecipientRepository.parseUrgency(src.getUrgency());
+                demandForecaster.onWithdrawn(src.getHospitalId(), src.getBloodTypeId(),
+                        src.getQuantity(), urgency, src.getRequestDate());
+                demandForecaster.onRequested(targetHospitalId, src.getBloodTypeId(), src.getQuantity(), urgency);
+
+                ra.addFlashAttribute("successMessage", "Request transferred to target hospital.");
+            } catch (Exception e) {
+                ra.addFlashAttribute("errorMessage", e.getMessage());
+            }
+            return "redirect:/admin/recipients";
+        });
     }
 
     @PostMapping("/recipients/{id}/cancel")
     public String cancelRequest(@PathVariable("id") int requestId,
                                 @RequestParam("reason") String reason,
                                 @RequestParam(value = "details", required = false) String details,
+                                @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
                                 RedirectAttributes ra,
                                 HttpSession session) {
+        // a different reason is a different submission, not a duplicate
+        String scope = "cancel:" + requestId + ":" + reason + ":" + (details != null ? details.trim() : "");
+        return idempotencyStore.handle(idempotencyKey, scope, ra,
+                () -> cancel(requestId, reason, details, ra, session));
+    }
+
+    private String cancel(int requestId, String reason, String details,
+                          RedirectAttributes ra, HttpSession session) {
 
         String finalReason = (reason == null) ? "" : reason.trim();
 
@@ -255,13 +303,24 @@ public class RecipientAdminController {
             finalReason = finalReason + " — " + details.trim();
         }
 
+        // pending first: only a pending request still counts as open demand
         int updated = jdbcTemplate.update("""
             UPDATE blood_request
                SET status = 'cancelled',
                    cancel_reason = ?,
                    cancelled_at = NOW()
-             WHERE id = ? AND status <> 'cancelled'
+             WHERE id = ? AND status = 'pending'
         """, finalReason, requestId);
+        boolean wasPending = (updated == 1);
+        if (!wasPending) {
+            updated = jdbcTemplate.update("""
+                UPDATE blood_request
+                   SET status = 'cancelled',
+                       cancel_reason = ?,
+                       cancelled_at = NOW()
+                 WHERE id = ? AND status <> 'cancelled'
+            """, finalReason, requestId);
+        }
 
         if (updated == 1) {
             // ---- Send a typed message to the recipient user (no title column) ----
@@ -274,6 +333,10 @@ public class RecipientAdminController {
                 SELECT br.id AS request_id,
                        br.user_id,
                        br.quantity,
+                       br.hospital_id,
+                       br.blood_type_id,
+                       br.urgency,
+                       br.request_date,
                        bt.blood_type,
                        COALESCE(u.username, 'Unknown Patient') AS patient_name
                   FROM blood_request br
@@ -284,6 +347,17 @@ public class RecipientAdminController {
 
             int receiverUserId = ((Number) ctx.get("user_id")).intValue();
 
+            if (wasPending) {
+                Object requestDate = ctx.get("request_date");
+                demandForecaster.onWithdrawn(
+                        ((Number) ctx.get("hospital_id")).intValue(),
+                        ((Number) ctx.get("blood_type_id")).intValue(),
+                        ((Number) ctx.get("quantity")).intValue(),
+                        RecipientRepository.parseUrgency((String) ctx.get("urgency")),
+                        (requestDate instanceof java.sql.Timestamp ts) ? ts.toLocalDateTime()
+                            : (requestDate instanceof java.time.LocalDateTime ldt) ? ldt : null);
+            }
+
             // Prefix type marker; UI will render a derived title "Blood Request Cancelled"
             String typedMessage = "Cancellation Reason : " + finalReason;
             // (optional context)
@@ -301,6 +375,75 @@ public class RecipientAdminController {
         return "redirect:/admin/recipients";
     }
 
+    /** Days-to-shortage per (hospital, blood type); one pair when bloodTypeId is given. */
+    @GetMapping("/recipients/forecast")
+    @ResponseBody
+    public List<DemandForecaster.ShortageForecast> forecast(
+            @RequestParam(value = "bloodTypeId", required = false) Integer bloodTypeId,
+            HttpSession session) {
+        Integer hospitalId = (Integer) session.getAttribute("HOSPITAL_ID");
+        if (hospitalId != null && bloodTypeId != null) {
+            // read-only: a pair no event has touched yet has no forecast
+            var f = demandForecaster.forecast(hospitalId, bloodTypeId);
+            return (f != null) ? List.of(f) : List.of();
+        }
+        return demandForecaster.forecasts(hospitalId).stream()
+                .filter(f -> bloodTypeId == null || bloodTypeId.equals(f.getBloodTypeId()))
+                .toList();
+    }
+
+    /** Queue a shortage message to every compatible, eligible donor (runs in the background). */
+    @PostMapping("/recipients/{id}/broadcast")
+    public String broadcastToDonors(@PathVariable("id") int requestId,
+                                    @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                                    RedirectAttributes ra) {
+        return idempotencyStore.handle(idempotencyKey, "broadcast:" + requestId, ra, () -> {
+            // only for pending requests that can be filled neither locally nor by transfer
+            var req = recipientRepository.findRequest(requestId);
+            if (req == null || !"pending".equalsIgnoreCase(req.getStatus())) {
+                ra.addFlashAttribute("errorMessage", "Only pending requests can be broadcast to donors.");
+                return "redirect:/admin/recipients";
+            }
+            if (recipientRepository.availableUnits(req.getHospitalId(), req.getBloodTypeId()) >= req.getQuantity()) {
+                ra.addFlashAttribute("errorMessage", "This request can be completed from local stock.");
+                return "redirect:/admin/recipients";
+            }
+            boolean transferable = recipientRepository.hospitalsWithStock(req.getBloodTypeId(), req.getQuantity())
+                    .stream().anyMatch(id -> id != req.getHospitalId().intValue());
+            if (transferable) {
+                ra.addFlashAttribute("errorMessage", "Another hospital has enough stock; transfer this request instead.");
+                return "redirect:/admin/recipients";
+            }
+
+            var job = donorBroadcastService.start(requestId);
+            if (job == null) {
+                ra.addFlashAttribute("errorMessage", "Too many broadcasts are queued. Please try again later.");
+                return "redirect:/admin/recipients";
+            }
+            if (job.getStatus() == DonorBroadcastService.Status.DONE) {
+                ra.addFlashAttribute("successMessage",
+                        "Donors were already notified for this request (" + job.getSent() + " messages).");
+            } else {
+                ra.addFlashAttribute("successMessage", "Notifying compatible donors in the background.");
+            }
+            return "redirect:/admin/recipients";
+        });
+    }
+
+    /** Broadcast progress for a request. */
+    @GetMapping("/recipients/{id}/broadcast")
+    @ResponseBody
+    public DonorBroadcastService.BroadcastJob broadcastProgress(@PathVariable("id") int requestId) {
+        return donorBroadcastService.progress(requestId);
+    }
+
+    /** Dedupe counters for complete/transfer/cancel/broadcast submissions. */
+    @GetMapping("/recipients/idempotency-stats")
+    @ResponseBody
+    public Map<String, Long> idempotencyStats() {
+        return idempotencyStore.stats();
+    }
+
     @Getter @Setter
     public static class AdminBloodRequestForm {
         // User fields
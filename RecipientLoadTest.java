@@ -0,0 +1,382 @@
+package com.grppj.donateblood.loadtest;
+
+import jakarta.servlet.http.HttpSession;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
+
+import com.grppj.donateblood.controller.RecipientAdminController;
+import com.grppj.donateblood.controller.RecipientAdminController.AdminBloodRequestForm;
+import com.grppj.donateblood.model.Urgency;
+import com.grppj.donateblood.repository.RecipientRepository.RecipientRow;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent-admin load test for the recipients screen.
+ *
+ * Runs scripted admin sessions (list, add, complete, transfer, cancel) directly
+ * against {@link RecipientAdminController} at increasing concurrency levels and
+ * prints p50/p95/p99 latency, throughput, queries per action, failed actions,
+ * double-allocated or lost donation units and lost requests.
+ *
+ * Only active under the "loadtest" profile and only against an in-memory
+ * database. application-loadtest.properties points the datasource at H2 and
+ * loads loadtest-schema.sql / loadtest-data.sql, so a run needs nothing else:
+ * <pre>
+ *   --spring.profiles.active=loadtest
+ *   --loadtest.concurrency=1,2,4,8,16
+ *   --loadtest.actions-per-session=50
+ * </pre>
+ */
+@Component
+@Profile("loadtest")
+public class RecipientLoadTest implements CommandLineRunner {
+
+    enum Action { LIST, ADD, COMPLETE, TRANSFER, CANCEL }
+
+    /** One admin session replays this script from the start until it has done its actions. */
+    private static final Action[] SCRIPT = {
+        Action.LIST, Action.ADD, Action.LIST, Action.COMPLETE,
+        Action.LIST, Action.TRANSFER, Action.LIST, Action.CANCEL
+    };
+
+    private final RecipientAdminController controller;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${loadtest.concurrency:1,2,4,8,16}")
+    private int[] concurrencyLevels;
+
+    @Value("${loadtest.actions-per-session:50}")
+    private int actionsPerSession;
+
+    private final AtomicInteger emailSeq = new AtomicInteger();
+
+    public RecipientLoadTest(RecipientAdminController controller, JdbcTemplate jdbcTemplate) {
+        this.controller = controller;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        String url = jdbcTemplate.execute((Connection c) -> c.getMetaData().getURL());
+        if (url == null || !url.contains(":mem:")) {
+            throw new IllegalStateException("Load test refuses to run against a non-embedded database: " + url);
+        }
+
+        List<Integer> hospitalIds = jdbcTemplate.query("SELECT id FROM hospital ORDER BY id", (rs, rn) -> rs.getInt(1));
+        List<Integer> bloodTypeIds = jdbcTemplate.query("SELECT id FROM blood_type ORDER BY id", (rs, rn) -> rs.getInt(1));
+        if (hospitalIds.isEmpty() || bloodTypeIds.isEmpty()) {
+            throw new IllegalStateException("Load test needs seeded hospital and blood_type rows.");
+        }
+
+        System.out.printf("%n%-6s %-9s %7s %9s %9s %9s %8s %8s%n",
+                "admins", "action", "count", "p50 ms", "p95 ms", "p99 ms", "q/action", "errors");
+        for (int level : concurrencyLevels) {
+            runLevel(level, hospitalIds, bloodTypeIds);
+        }
+    }
+
+    private void runLevel(int admins, List<Integer> hospitalIds, List<Integer> bloodTypeIds) throws Exception {
+        Snapshot before = snapshot();
+
+        ExecutorService pool = Executors.newFixedThreadPool(admins);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SessionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < admins; i++) {
+            int hospitalId = hospitalIds.get(i % hospitalIds.size());
+            futures.add(pool.submit(() -> {
+                start.await();
+                return runSession(hospitalId, hospitalIds, bloodTypeIds);
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        SessionResult total = new SessionResult();
+        for (Future<SessionResult> f : futures) total.merge(f.get());
+        long wallNanos = System.nanoTime() - t0;
+        pool.shutdown();
+
+        Snapshot after = snapshot();
+
+        int totalActions = 0;
+        for (Action a : Action.values()) {
+            List<Long> lat = total.latencies.get(a);
+            if (lat.isEmpty()) continue;
+            Collections.sort(lat);
+            totalActions += lat.size();
+            System.out.printf("%-6d %-9s %7d %9.2f %9.2f %9.2f %8.1f %8d%n",
+                    admins, a, lat.size(),
+                    percentile(lat, 50), percentile(lat, 95), percentile(lat, 99),
+                    (double) total.queries.get(a) / lat.size(),
+                    total.errors.get(a));
+        }
+
+        long usedDelta = after.usedDonations - before.usedDonations;
+        long fulfilledDelta = after.fulfillments - before.fulfillments;
+        // a transfer's compensating delete can remove another admin's newly added request,
+        // so the row count can stay level while a request disappears; check the ids instead
+        long lostRequests = total.lostAtCreate + missingRequests(total.createdIds);
+        System.out.printf("%-6d throughput %.1f actions/s, double-allocated units %d, lost units %d, "
+                        + "lost requests %d, skipped %d%n%n",
+                admins,
+                totalActions / (wallNanos / 1_000_000_000.0),
+                after.doubleAllocated - before.doubleAllocated,
+                Math.max(0, usedDelta - (fulfilledDelta - (after.doubleAllocatedRows - before.doubleAllocatedRows))),
+                lostRequests,
+                total.skipped);
+    }
+
+    private SessionResult runSession(int hospitalId, List<Integer> hospitalIds, List<Integer> bloodTypeIds) {
+        // USER_ID 0 is what the controller falls back to when no admin is logged in
+        HttpSession session = session(Map.of(
+            "HOSPITAL_ID", hospitalId,
+            "USER_ID", 0,
+            "ADMIN_NAME", "loadtest-" + hospitalId
+        ));
+        SessionResult result = new SessionResult();
+        List<RecipientRow> rows = List.of();
+
+        for (int n = 0; n < actionsPerSession; n++) {
+            Action action = SCRIPT[n % SCRIPT.length];
+            RecipientRow target = null;
+            if (action == Action.COMPLETE || action == Action.TRANSFER || action == Action.CANCEL) {
+                target = pickPending(rows, action == Action.COMPLETE);
+                if (target == null) { result.skipped++; continue; }
+            }
+
+            RedirectAttributesModelMap ra = new RedirectAttributesModelMap();
+            AdminBloodRequestForm addForm = null;
+            int transferTo = 0;
+            boolean ok = true;
+            QueryCountingDataSource.reset();
+            long t0 = System.nanoTime();
+            try {
+                switch (action) {
+                    case LIST -> {
+                        ExtendedModelMap model = new ExtendedModelMap();
+                        controller.recipients(model, session);
+                        @SuppressWarnings("unchecked")
+                        List<RecipientRow> listed = (List<RecipientRow>) model.get("rows");
+                        rows = (listed != null) ? listed : List.of();
+                    }
+                    case ADD -> {
+                        addForm = newForm(hospitalId, bloodTypeIds);
+                        String view = controller.submitAddForm(addForm, new BeanPropertyBindingResult(addForm, "form"),
+                                session, ra, new ExtendedModelMap());
+                        ok = view.startsWith("redirect:");
+                    }
+                    case COMPLETE -> controller.completeRequest(
+                            target.getRequestId(), target.getBloodTypeId(), target.getQuantity(),
+                            null, ra, session);
+                    case TRANSFER -> controller.transferRequest(
+                            target.getRequestId(), transferTo = pickTarget(target, hospitalIds), null, ra);
+                    case CANCEL -> controller.cancelRequest(
+                            target.getRequestId(), "No Longer Needed", null, null, ra, session);
+                }
+            } catch (Exception e) {
+                ok = false;
+            }
+            long elapsed = System.nanoTime() - t0;
+
+            // transfer and cancel report failures as a flash message, not an exception
+            if (ra.getFlashAttributes().containsKey("errorMessage")) ok = false;
+            if (!ok) result.errors.merge(action, 1L, Long::sum);
+            result.latencies.get(action).add(elapsed);
+            result.queries.merge(action, QueryCountingDataSource.count(), Long::sum);
+
+            // outside the timed and counted window: remember the row each success created
+            if (ok && (action == Action.ADD || action == Action.TRANSFER)) {
+                Integer createdId = (action == Action.ADD)
+                        ? addedRequestId(addForm.getEmail())
+                        : transferredRequestId(target.getRequestId(), transferTo);
+                if (createdId != null) result.createdIds.add(createdId);
+                else result.lostAtCreate++;   // already gone by the time we looked
+            }
+
+            // the row is no longer pending from this admin's point of view
+            if (target != null) target.setStatus(action.name().toLowerCase());
+        }
+        return result;
+    }
+
+    private RecipientRow pickPending(List<RecipientRow> rows, boolean needsStock) {
+        List<RecipientRow> pending = rows.stream()
+                .filter(r -> "pending".equalsIgnoreCase(r.getStatus()))
+                .filter(r -> !needsStock || r.isCanComplete())
+                .toList();
+        if (pending.isEmpty()) return null;
+        return pending.get(ThreadLocalRandom.current().nextInt(pending.size()));
+    }
+
+    private int pickTarget(RecipientRow row, List<Integer> hospitalIds) {
+        List<Integer> eligible = row.getEligibleTargetHospitalIds();
+        if (eligible != null && !eligible.isEmpty()) {
+            return eligible.get(ThreadLocalRandom.current().nextInt(eligible.size()));
+        }
+        return hospitalIds.stream()
+                .filter(id -> !id.equals(row.getHospitalId()))
+                .findFirst()
+                .orElse(row.getHospitalId());
+    }
+
+    private AdminBloodRequestForm newForm(int hospitalId, List<Integer> bloodTypeIds) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int seq = emailSeq.incrementAndGet();
+        AdminBloodRequestForm form = new AdminBloodRequestForm();
+        form.setName("Load Patient " + seq);
+        form.setEmail("loadtest-" + seq + "@example.invalid");
+        form.setPassword("default123");
+        form.setDob("1990-01-01");
+        form.setPhone("09" + (1_000_000 + rnd.nextInt(9_000_000)));
+        form.setAddress("Load Test Street " + seq);
+        form.setGender(rnd.nextBoolean() ? "Male" : "Female");
+        form.setBloodTypeId(bloodTypeIds.get(rnd.nextInt(bloodTypeIds.size())));
+        form.setQuantity(1 + rnd.nextInt(3));
+        form.setUrgency(Urgency.values()[rnd.nextInt(Urgency.values().length)]);
+        form.setRequiredDate(LocalDate.now().plusDays(rnd.nextInt(14)).toString());
+        form.setHospitalId(hospitalId);
+        return form;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = new Snapshot();
+        s.usedDonations = count("SELECT COUNT(*) FROM donation WHERE status = 'Used'");
+        s.fulfillments = count("SELECT COUNT(*) FROM request_fulfillment");
+        s.doubleAllocated = count("""
+            SELECT COUNT(*) FROM (
+                SELECT donation_donation_id
+                  FROM request_fulfillment
+                 GROUP BY donation_donation_id
+                HAVING COUNT(*) > 1) x
+            """);
+        s.doubleAllocatedRows = count("""
+            SELECT COALESCE(SUM(c - 1), 0) FROM (
+                SELECT COUNT(*) AS c
+                  FROM request_fulfillment
+                 GROUP BY donation_donation_id
+                HAVING COUNT(*) > 1) x
+            """);
+        return s;
+    }
+
+    /** The request just added for a fresh patient; each load-test form uses a unique email. */
+    private Integer addedRequestId(String email) {
+        return jdbcTemplate.queryForObject("""
+            SELECT MAX(br.id)
+              FROM blood_request br
+              JOIN `user` u ON u.id = br.user_id
+             WHERE u.email = ?
+            """, Integer.class, email);
+    }
+
+    /** The pending copy a transfer inserted: same patient, target hospital, newer than the source. */
+    private Integer transferredRequestId(int sourceId, int targetHospitalId) {
+        return jdbcTemplate.queryForObject("""
+            SELECT MIN(br.id)
+              FROM blood_request br
+              JOIN blood_request src ON src.id = ?
+             WHERE br.user_id     = src.user_id
+               AND br.hospital_id = ?
+               AND br.id          > src.id
+            """, Integer.class, sourceId, targetHospitalId);
+    }
+
+    /** How many of the given request ids no longer exist in blood_request. */
+    private long missingRequests(List<Integer> ids) {
+        long present = 0;
+        for (int from = 0; from < ids.size(); from += 500) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + 500, ids.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            Long n = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM blood_request WHERE id IN (" + in + ")", Long.class, chunk.toArray());
+            present += (n != null) ? n : 0L;
+        }
+        return ids.size() - present;
+    }
+
+    private long count(String sql) {
+        Long n = jdbcTemplate.queryForObject(sql, Long.class);
+        return n != null ? n : 0L;
+    }
+
+    /** Nearest-rank percentile of sorted nanosecond samples, in milliseconds. */
+    private static double percentile(List<Long> sorted, int p) {
+        int idx = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, idx)) / 1_000_000.0;
+    }
+
+    /** Minimal map-backed HttpSession; the controller only reads attributes. */
+    private static HttpSession session(Map<String, Object> initial) {
+        Map<String, Object> attrs = new HashMap<>(initial);
+        return (HttpSession) Proxy.newProxyInstance(
+            HttpSession.class.getClassLoader(),
+            new Class<?>[] { HttpSession.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getAttribute" -> attrs.get((String) args[0]);
+                case "setAttribute" -> attrs.put((String) args[0], args[1]);
+                case "removeAttribute" -> attrs.remove((String) args[0]);
+                case "getAttributeNames" -> Collections.enumeration(attrs.keySet());
+                case "getId" -> "loadtest-" + System.identityHashCode(proxy);
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "LoadTestSession" + attrs;
+                default -> null;
+            });
+    }
+
+    static class Snapshot {
+        long usedDonations;
+        long fulfillments;
+        long doubleAllocated;
+        long doubleAllocatedRows;
+    }
+
+    static class SessionResult {
+        final Map<Action, List<Long>> latencies = new EnumMap<>(Action.class);
+        final Map<Action, Long> queries = new EnumMap<>(Action.class);
+        final Map<Action, Long> errors = new EnumMap<>(Action.class);
+        long skipped;
+        long lostAtCreate;
+        final List<Integer> createdIds = new ArrayList<>();
+
+        SessionResult() {
+            Arrays.stream(Action.values()).forEach(a -> {
+                latencies.put(a, new ArrayList<>());
+                queries.put(a, 0L);
+                errors.put(a, 0L);
+            });
+        }
+
+        void merge(SessionResult other) {
+            other.latencies.forEach((a, l) -> latencies.get(a).addAll(l));
+            other.queries.forEach((a, q) -> queries.merge(a, q, Long::sum));
+            other.errors.forEach((a, e) -> errors.merge(a, e, Long::sum));
+            skipped += other.skipped;
+            lostAtCreate += other.lostAtCreate;
+            createdIds.addAll(other.createdIds);
+        }
+    }
+}
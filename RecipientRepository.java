@@ -58,24 +58,30 @@ public class RecipientRepository {
         return jdbcTemplate.query(sql, (rs, rn) -> {
             RecipientRow row = mapRow(rs);
 
-            Integer availableUnits = jdbcTemplate.queryForObject("""
-                    SELECT COALESCE(SUM(d.blood_unit), 0)
-                      FROM donation d
-                      JOIN donor_appointment da ON da.id = d.donor_appointment_id
-                     WHERE da.hospital_id   = ?
-                       AND da.blood_type_id = ?
-                       AND d.status = 'Available'
-                    """,
-                    Integer.class,
-                    row.getHospitalId(),
-                    row.getBloodTypeId()
-            );
-
-            row.setCanComplete(availableUnits != null && availableUnits >= row.getQuantity());
+            int availableUnits = availableUnits(row.getHospitalId(), row.getBloodTypeId());
+            row.setAvailableUnits(availableUnits);
+            row.setCanComplete(availableUnits >= row.getQuantity());
             return row;
         }, hospitalId, hospitalId);
     }
 
+    /** Units of this blood type currently available at the hospital. */
+    public int availableUnits(int hospitalId, int bloodTypeId) {
+        Integer units = jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(d.blood_unit), 0)
+                  FROM donation d
+                  JOIN donor_appointment da ON da.id = d.donor_appointment_id
+                 WHERE da.hospital_id   = ?
+                   AND da.blood_type_id = ?
+                   AND d.status = 'Available'
+                """,
+                Integer.class,
+                hospitalId,
+                bloodTypeId
+        );
+        return units != null ? units : 0;
+    }
+
     private RecipientRow mapRow(ResultSet rs) throws SQLException {
         RecipientRow r = new RecipientRow();
         r.setRequestId(rs.getInt("request_id"));
@@ -117,6 +123,24 @@ public class RecipientRepository {
         return r;
     }
 
+    /** Status, quantity, hospital and blood type of a request, or null if it does not exist. */
+    public RecipientRow findRequest(int requestId) {
+        return jdbcTemplate.query(
+            "SELECT id, quantity, status, hospital_id, blood_type_id FROM blood_request WHERE id = ?",
+            rs -> {
+                if (!rs.next()) return null;
+                RecipientRow r = new RecipientRow();
+                r.setRequestId(rs.getInt(1));
+                r.setQuantity(rs.getInt(2));
+                r.setStatus(rs.getString(3));
+                r.setHospitalId(rs.getInt(4));
+                r.setBloodTypeId(rs.getInt(5));
+                return r;
+            },
+            requestId
+        );
+    }
+
     public Integer findHospitalIdForRequest(int requestId) {
         return jdbcTemplate.queryForObject(
             "SELECT hospital_id FROM blood_request WHERE id = ?",
@@ -224,10 +248,11 @@ public class RecipientRepository {
 
     /* ------------ FULFILL/TRANSFER (existing) ------------- */
 
-    public void updateStatusAndInsertFulfillment(int requestId,
-                                                 int hospitalId,
-                                                 int adminUserId,
-                                                 int units) {
+    /** @return number of donation units consumed */
+    public int updateStatusAndInsertFulfillment(int requestId,
+                                                int hospitalId,
+                                                int adminUserId,
+                                                int units) {
 
         Integer bloodTypeId = jdbcTemplate.queryForObject(
             "SELECT blood_type_id FROM blood_request WHERE id = ?",
@@ -235,7 +260,7 @@ public class RecipientRepository {
         );
         if (bloodTypeId == null || units <= 0) {
             jdbcTemplate.update("UPDATE blood_request SET status = 'completed' WHERE id = ?", requestId);
-            return;
+            return 0;
         }
 
         List<Integer> donationIds = jdbcTemplate.query(
@@ -273,18 +298,31 @@ public class RecipientRepository {
         if (consumed > 0) {
             bloodStockRepository.decreaseStock(hospitalId, bloodTypeId, consumed, adminUserId, 0);
         }
+        return consumed;
     }
 
     /**
      * Transfers all units to another hospital.
      * Keeps the original quantity; marks the source as 'transferred' with target_hospital_id.
+     * @return the source request as it was before the transfer
      */
-    public void transferAllUnitsNoTx(int requestId, int targetHospitalId) {
-        Integer qty = jdbcTemplate.query(
-            "SELECT quantity FROM blood_request WHERE id = ?",
-            rs -> rs.next() ? rs.getInt(1) : null,
+    public RecipientRow transferAllUnitsNoTx(int requestId, int targetHospitalId) {
+        RecipientRow src = jdbcTemplate.query(
+            "SELECT quantity, hospital_id, blood_type_id, urgency, request_date FROM blood_request WHERE id = ?",
+            rs -> {
+                if (!rs.next()) return null;
+                RecipientRow r = new RecipientRow();
+                r.setQuantity(rs.getInt(1));
+                r.setHospitalId(rs.getInt(2));
+                r.setBloodTypeId(rs.getInt(3));
+                r.setUrgency(rs.getString(4));
+                var ts = rs.getTimestamp(5);
+                r.setRequestDate(ts != null ? ts.toLocalDateTime() : null);
+                return r;
+            },
             requestId
         );
+        Integer qty = (src != null) ? src.getQuantity() : null;
         if (qty == null) throw new IllegalArgumentException("Request not found.");
         if (qty <= 0) throw new IllegalArgumentException("Nothing to transfer (quantity is 0).");
 
@@ -324,6 +362,17 @@ public class RecipientRepository {
             """, targetHospitalId, qty);
             throw new IllegalStateException("Transfer failed while updating the source request. No changes kept.");
         }
+        return src;
+    }
+
+    /** Urgency column is stored as the enum name; unknown values fall back to null (weight 1). */
+    public static Urgency parseUrgency(String s) {
+        if (s == null) return null;
+        try {
+            return Urgency.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
     
 
@@ -373,6 +422,7 @@ public class RecipientRepository {
         private String  targetHospitalName;
 
         private boolean canComplete;
+        private int availableUnits;
 
         public Integer getRequestId() { return requestId; }
         public void setRequestId(Integer v) { requestId = v; }
@@ -409,6 +459,8 @@ public class RecipientRepository {
 
         public boolean isCanComplete() { return canComplete; }
         public void setCanComplete(boolean v) { canComplete = v; }
+        public int getAvailableUnits() { return availableUnits; }
+        public void setAvailableUnits(int v) { availableUnits = v; }
 
         // NEW getters/setters
         public Integer getTargetHospitalId() { return targetHospitalId; }
@@ -0,0 +1,12 @@
+-- Progress of shortage broadcasts (DonorBroadcastService), one row per blood_request.
+-- Apply once to the application database alongside the other tables.
+
+CREATE TABLE IF NOT EXISTS broadcast_progress (
+    request_id   INT PRIMARY KEY,
+    status       VARCHAR(10) NOT NULL,
+    last_user_id INT NOT NULL DEFAULT 0,
+    sent         INT NOT NULL DEFAULT 0,
+    batches      INT NOT NULL DEFAULT 0,
+    error        VARCHAR(500),
+    updated_at   DATETIME
+);
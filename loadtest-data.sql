@@ -0,0 +1,41 @@
+-- Seed data for the "loadtest" profile: 4 hospitals, all 8 blood types,
+-- 25 available units per (hospital, blood type) and a few pending requests.
+
+INSERT INTO role(role) VALUES ('admin'), ('donor'), ('recipient');
+
+INSERT INTO hospital(hospital_name) VALUES
+    ('Load Test General'), ('Load Test North'), ('Load Test South'), ('Load Test East');
+
+INSERT INTO blood_type(blood_type) VALUES
+    ('O+'), ('O-'), ('A+'), ('A-'), ('B+'), ('B-'), ('AB+'), ('AB-');
+
+-- one donor per (hospital, blood type, n)
+INSERT INTO `user`(username, email, password, phone, dateofbirth, address, gender, role_id)
+SELECT CONCAT('Donor ', h.id, '-', bt.id, '-', x.x),
+       CONCAT('donor-', h.id, '-', bt.id, '-', x.x, '@example.invalid'),
+       'default123', '0912345678', '1990-01-01', 'Seed Street', 'Male', 2
+  FROM hospital h CROSS JOIN blood_type bt CROSS JOIN SYSTEM_RANGE(1, 25) x;
+
+INSERT INTO donor_appointment(user_id, hospital_id, blood_type_id)
+SELECT u.id, h.id, bt.id
+  FROM hospital h CROSS JOIN blood_type bt CROSS JOIN SYSTEM_RANGE(1, 25) x
+  JOIN `user` u ON u.email = CONCAT('donor-', h.id, '-', bt.id, '-', x.x, '@example.invalid');
+
+INSERT INTO donation(donor_appointment_id, blood_unit, status, donation_date)
+SELECT da.id, 1, 'Available', DATEADD('DAY', -MOD(da.id, 90), CURRENT_DATE)
+  FROM donor_appointment da;
+
+INSERT INTO blood_stock(hospital_id, blood_type_id, unit, last_update)
+SELECT h.id, bt.id, 25, NOW() FROM hospital h CROSS JOIN blood_type bt;
+
+-- pending requests so the first sessions have something to complete/transfer/cancel
+INSERT INTO `user`(username, email, password, phone, dateofbirth, address, gender, role_id)
+SELECT CONCAT('Seed Patient ', x.x), CONCAT('patient-', x.x, '@example.invalid'),
+       'default123', '0912345678', '1985-01-01', 'Seed Street', 'Female', 3
+  FROM SYSTEM_RANGE(1, 40) x;
+
+INSERT INTO blood_request(quantity, request_date, required_date, urgency, status, user_id, hospital_id, blood_type_id)
+SELECT 1 + MOD(u.id, 3), NOW(), CURRENT_DATE, 'MEDIUM', 'pending', u.id,
+       1 + MOD(u.id, 4), 1 + MOD(u.id, 8)
+  FROM `user` u
+ WHERE u.email LIKE 'patient-%';
@@ -0,0 +1,95 @@
+-- Schema for the "loadtest" profile (H2, MySQL mode).
+-- Only the tables and columns the recipients flow touches.
+
+CREATE TABLE role (
+    id   INT AUTO_INCREMENT PRIMARY KEY,
+    role VARCHAR(45) NOT NULL
+);
+
+CREATE TABLE `user` (
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    username    VARCHAR(100),
+    email       VARCHAR(150) UNIQUE,
+    password    VARCHAR(255),
+    phone       VARCHAR(20),
+    dateofbirth VARCHAR(45),
+    address     VARCHAR(255),
+    gender      VARCHAR(10),
+    role_id     INT REFERENCES role(id)
+);
+
+CREATE TABLE hospital (
+    id            INT AUTO_INCREMENT PRIMARY KEY,
+    hospital_name VARCHAR(150) NOT NULL
+);
+
+CREATE TABLE blood_type (
+    id         INT AUTO_INCREMENT PRIMARY KEY,
+    blood_type VARCHAR(5) NOT NULL
+);
+
+CREATE TABLE blood_request (
+    id                 INT AUTO_INCREMENT PRIMARY KEY,
+    quantity           INT NOT NULL,
+    request_date       DATETIME,
+    required_date      DATE,
+    urgency            VARCHAR(10),
+    status             VARCHAR(20),
+    user_id            INT REFERENCES `user`(id),
+    hospital_id        INT REFERENCES hospital(id),
+    blood_type_id      INT REFERENCES blood_type(id),
+    target_hospital_id INT REFERENCES hospital(id),
+    created_by         INT,
+    cancel_reason      VARCHAR(500),
+    cancelled_at       DATETIME
+);
+
+CREATE TABLE donor_appointment (
+    id            INT AUTO_INCREMENT PRIMARY KEY,
+    user_id       INT REFERENCES `user`(id),
+    hospital_id   INT REFERENCES hospital(id),
+    blood_type_id INT REFERENCES blood_type(id)
+);
+
+CREATE TABLE donation (
+    donation_id          INT AUTO_INCREMENT PRIMARY KEY,
+    donor_appointment_id INT REFERENCES donor_appointment(id),
+    blood_unit           INT NOT NULL DEFAULT 1,
+    status               VARCHAR(20) NOT NULL,
+    donation_date        DATE
+);
+
+CREATE TABLE request_fulfillment (
+    id                   INT AUTO_INCREMENT PRIMARY KEY,
+    fulfillment_date     DATETIME,
+    quantity_used        INT,
+    donation_donation_id INT REFERENCES donation(donation_id),
+    blood_request_id     INT REFERENCES blood_request(id)
+);
+
+CREATE TABLE blood_stock (
+    id            INT AUTO_INCREMENT PRIMARY KEY,
+    hospital_id   INT REFERENCES hospital(id),
+    blood_type_id INT REFERENCES blood_type(id),
+    unit          INT NOT NULL DEFAULT 0,
+    updated_by    INT,
+    last_update   DATETIME
+);
+
+CREATE TABLE user_message (
+    id                 INT AUTO_INCREMENT PRIMARY KEY,
+    sender_hospital_id INT,
+    receiver_user_id   INT REFERENCES `user`(id),
+    message            VARCHAR(1000),
+    created_at         DATETIME
+);
+
+CREATE TABLE broadcast_progress (
+    request_id   INT PRIMARY KEY,
+    status       VARCHAR(10) NOT NULL,
+    last_user_id INT NOT NULL DEFAULT 0,
+    sent         INT NOT NULL DEFAULT 0,
+    batches      INT NOT NULL DEFAULT 0,
+    error        VARCHAR(500),
+    updated_at   DATETIME
+);